@@ -13,22 +13,38 @@ import android.graphics.Color;
 import android.graphics.PixelFormat;
 import android.os.Build;
 import android.os.IBinder;
+import android.os.PowerManager;
 import android.provider.Settings;
 import android.util.DisplayMetrics;
+import android.util.TypedValue;
 import android.view.Gravity;
-import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import androidx.tracing.Trace;
+
+import com.netspeedindicator.core.OverlayView;
+import com.netspeedindicator.core.PowerMode;
+import com.netspeedindicator.core.PowerModeController;
+import com.netspeedindicator.core.SpeedFilter;
+import com.netspeedindicator.core.SpeedFormatter;
+import com.netspeedindicator.core.SpeedPresenter;
+import com.netspeedindicator.core.Transport;
+
+import java.util.EnumMap;
+import java.util.Map;
+
 public class FloatingWindowService extends Service {
     private WindowManager windowManager;
     private View floatingView;
     private TextView speedText;
     private LinearLayout container;
     private NetworkSpeedMonitor speedMonitor;
+    private SpeedPresenter speedPresenter;
+    private final PowerModeController powerModeController = new PowerModeController();
     
     private int screenWidth;
     private int screenHeight;
@@ -36,12 +52,13 @@ public class FloatingWindowService extends Service {
     // Settings
     private boolean isLocked = false;
     private boolean isLowSpeedHideEnabled = false;
-    private int lowSpeedThreshold = 1024; // 1KB/s
-    private int speedFormat = 0; // 0: Total, 1: Up/Down Horizontal, 2: Up/Down Vertical
+    private int lowSpeedThreshold = SpeedFilter.DEFAULT_THRESHOLD;
+    private int speedFormat = SpeedFormatter.FORMAT_TOTAL; // 0: Total, 1: Up/Down Horizontal, 2: Up/Down Vertical
     private int textAlignment = Gravity.LEFT;
     private int textColor = Color.WHITE;
     private int textSize = 14;
     private boolean showOverStatusBar = false;
+    private boolean showTransport = false;
     
     // Position
     private WindowManager.LayoutParams params;
@@ -51,7 +68,14 @@ public class FloatingWindowService extends Service {
     private static final String CHANNEL_ID = "floating_window_service";
     private static final int NOTIFICATION_ID = 1;
     
+    // Async trace section from onCreate to the first sample on the overlay, read by the startup benchmark
+    private static final String TRACE_FIRST_SPEED = "TimeToFirstSpeed";
+    private static final int TRACE_FIRST_SPEED_COOKIE = 0;
+    
     private SharedPreferences preferences;
+    private boolean isDestroyed = false;
+    private boolean isOverlayStarted = false;
+    private boolean isFirstSpeedShown = false;
     
     @Override
     public IBinder onBind(Intent intent) {
@@ -61,40 +85,66 @@ public class FloatingWindowService extends Service {
     @Override
     public void onCreate() {
         super.onCreate();
+        Trace.beginAsyncSection(TRACE_FIRST_SPEED, TRACE_FIRST_SPEED_COOKIE);
         
-        preferences = getSharedPreferences("NetSpeedIndicator", MODE_PRIVATE);
-        loadSettings();
+        // Create notification channel for foreground service
+        createNotificationChannel();
+        
+        // Start foreground service
+        startForeground(NOTIFICATION_ID, createNotification());
+        
+        // getSharedPreferences() only starts the disk read; values are read off the main thread
+        preferences = getSharedPreferences(SettingsSnapshot.PREFS_NAME, MODE_PRIVATE);
         
         // Get screen size
         DisplayMetrics metrics = getResources().getDisplayMetrics();
         screenWidth = metrics.widthPixels;
         screenHeight = metrics.heightPixels;
         
-        // Create notification channel for foreground service
-        createNotificationChannel();
+        // Take the traffic baseline now, so the first sample after addView already covers a real interval
+        speedMonitor = new NetworkSpeedMonitor(this);
         
-        // Start foreground service
-        startForeground(NOTIFICATION_ID, createNotification());
+        SettingsSnapshot.loadAsync(this, new SettingsSnapshot.OnSettingsLoadedListener() {
+            @Override
+            public void onSettingsLoaded(SettingsSnapshot settings) {
+                if (!isDestroyed) {
+                    startOverlay(settings);
+                }
+            }
+        });
+    }
+    
+    private void startOverlay(SettingsSnapshot settings) {
+        applySettings(settings);
         
         // Create floating view
-        createFloatingView();
+        createFloatingView(settings.positionX, settings.positionY);
         
-        // Start network speed monitor
-        speedMonitor = new NetworkSpeedMonitor(this);
+        // Start network speed monitor. The first sample is taken synchronously right after
+        // addView, so the overlay's first frame already shows a speed
+        setupPowerMode();
         speedMonitor.startMonitoring(new NetworkSpeedMonitor.OnNetworkSpeedListener() {
             @Override
-            public void onNetworkSpeedUpdate(long downloadSpeed, long uploadSpeed, long totalSpeed) {
-                updateSpeedText(downloadSpeed, uploadSpeed, totalSpeed);
+            public void onNetworkSpeedUpdate(long downloadSpeed, long uploadSpeed, long totalSpeed, Transport transport) {
+                updateSpeedText(downloadSpeed, uploadSpeed, totalSpeed, transport);
             }
         });
         
         // Register broadcast receiver for settings changes
         registerReceiver(settingsChangeReceiver, new IntentFilter("com.netspeedindicator.SETTINGS_CHANGED"));
+        
+        // Register broadcast receiver for screen on/off
+        IntentFilter screenFilter = new IntentFilter(Intent.ACTION_SCREEN_ON);
+        screenFilter.addAction(Intent.ACTION_SCREEN_OFF);
+        registerReceiver(screenStateReceiver, screenFilter);
+        
+        isOverlayStarted = true;
     }
     
     @Override
     public void onDestroy() {
         super.onDestroy();
+        isDestroyed = true;
         
         // Stop network speed monitor
         if (speedMonitor != null) {
@@ -106,24 +156,69 @@ public class FloatingWindowService extends Service {
             windowManager.removeView(floatingView);
         }
         
-        // Unregister receiver
-        unregisterReceiver(settingsChangeReceiver);
+        // Unregister receivers
+        if (isOverlayStarted) {
+            unregisterReceiver(settingsChangeReceiver);
+            unregisterReceiver(screenStateReceiver);
+        }
     }
     
-
+    private void setupPowerMode() {
+        // A slower sampler cadence while the overlay is hidden by the low speed rule, and
+        // no sampling or drawing at all while the screen is off
+        powerModeController.setOnPowerModeChangeListener(new PowerModeController.OnPowerModeChangeListener() {
+            @Override
+            public void onPowerModeChanged(PowerMode oldMode, PowerMode newMode) {
+                // Leaving SCREEN_OFF also takes an immediate catch-up sample
+                speedMonitor.setPowerMode(newMode);
+            }
+        });
+        
+        PowerManager powerManager = (PowerManager) getSystemService(POWER_SERVICE);
+        powerModeController.setScreenOn(powerManager.isInteractive());
+        speedPresenter.setPowerModeController(powerModeController);
+        speedMonitor.setPowerMode(powerModeController.getMode());
+    }
     
-    private void createFloatingView() {
+    private void createFloatingView(int x, int y) {
         windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
         
-        LayoutInflater inflater = (LayoutInflater) getSystemService(LAYOUT_INFLATER_SERVICE);
-        floatingView = inflater.inflate(R.layout.floating_window, null);
+        // Built in code rather than inflated, to keep XML parsing off the startup path
+        container = new LinearLayout(this);
+        container.setId(R.id.container);
+        container.setOrientation(LinearLayout.VERTICAL);
+        container.setBackgroundColor(Color.TRANSPARENT);
+        int containerPadding = dpToPx(8);
+        container.setPadding(containerPadding, containerPadding, containerPadding, containerPadding);
         
-        speedText = floatingView.findViewById(R.id.speed_text);
-        container = floatingView.findViewById(R.id.container);
+        speedText = new TextView(this);
+        speedText.setId(R.id.speed_text);
+        speedText.setText("0 B/s");
+        speedText.setShadowLayer(2, 1, 1, Color.BLACK);
+        int textPadding = dpToPx(4);
+        speedText.setPadding(textPadding, textPadding, textPadding, textPadding);
+        speedText.setBackgroundColor(0x80000000);
+        speedText.setGravity(Gravity.CENTER);
+        container.addView(speedText, new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.WRAP_CONTENT, LinearLayout.LayoutParams.WRAP_CONTENT));
         
-        // Load saved position
-        int x = preferences.getInt("position_x", 50);
-        int y = preferences.getInt("position_y", 50);
+        floatingView = container;
+        speedPresenter = new SpeedPresenter(new OverlayView() {
+            @Override
+            public boolean isVisible() {
+                return floatingView.getVisibility() == View.VISIBLE;
+            }
+            
+            @Override
+            public void setVisible(boolean visible) {
+                floatingView.setVisibility(visible ? View.VISIBLE : View.GONE);
+            }
+            
+            @Override
+            public void setText(String text) {
+                speedText.setText(text);
+            }
+        }, getString(R.string.down), getString(R.string.up), getTransportLabels());
         
         // Setup window parameters
         params = new WindowManager.LayoutParams();
@@ -195,41 +290,31 @@ public class FloatingWindowService extends Service {
         windowManager.addView(floatingView, params);
     }
     
-    private void updateSpeedText(long downloadSpeed, long uploadSpeed, long totalSpeed) {
-        // Check low speed hide
-        if (isLowSpeedHideEnabled && totalSpeed < lowSpeedThreshold) {
-            if (floatingView.getVisibility() != View.GONE) {
-                floatingView.setVisibility(View.GONE);
-            }
-            return;
-        } else {
-            if (floatingView.getVisibility() != View.VISIBLE) {
-                floatingView.setVisibility(View.VISIBLE);
-            }
-        }
-        
-        String speedString = "";
+    private void updateSpeedText(long downloadSpeed, long uploadSpeed, long totalSpeed, Transport transport) {
+        speedPresenter.onNetworkSpeedUpdate(downloadSpeed, uploadSpeed, totalSpeed, transport);
         
-        switch (speedFormat) {
-            case 0: // Total speed
-                speedString = NetworkSpeedMonitor.formatSpeed(totalSpeed);
-                break;
-                
-            case 1: // Up/Down horizontal
-                speedString = getString(R.string.down) + NetworkSpeedMonitor.formatSpeed(downloadSpeed) + " " +
-                              getString(R.string.up) + NetworkSpeedMonitor.formatSpeed(uploadSpeed);
-                break;
-                
-            case 2: // Up/Down vertical
-                speedString = getString(R.string.down) + NetworkSpeedMonitor.formatSpeed(downloadSpeed) + "\n" +
-                              getString(R.string.up) + NetworkSpeedMonitor.formatSpeed(uploadSpeed);
-                break;
+        if (!isFirstSpeedShown) {
+            isFirstSpeedShown = true;
+            Trace.endAsyncSection(TRACE_FIRST_SPEED, TRACE_FIRST_SPEED_COOKIE);
         }
-        
-        speedText.setText(speedString);
+    }
+    
+    private Map<Transport, String> getTransportLabels() {
+        Map<Transport, String> labels = new EnumMap<>(Transport.class);
+        labels.put(Transport.WIFI, getString(R.string.transport_wifi));
+        labels.put(Transport.CELLULAR, getString(R.string.transport_cellular));
+        labels.put(Transport.ETHERNET, getString(R.string.transport_ethernet));
+        labels.put(Transport.VPN, getString(R.string.transport_vpn));
+        return labels;
+    }
+
+    private int dpToPx(int dp) {
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, getResources().getDisplayMetrics());
     }
     
     private void updateViewSettings() {
+        speedPresenter.configure(speedFormat, isLowSpeedHideEnabled, lowSpeedThreshold, showTransport);
+        
         // Update text settings
         speedText.setTextColor(textColor);
         speedText.setTextSize(textSize);
@@ -247,22 +332,37 @@ public class FloatingWindowService extends Service {
         }
     }
     
-    private void loadSettings() {
-        isLocked = preferences.getBoolean("is_locked", false);
-        isLowSpeedHideEnabled = preferences.getBoolean("low_speed_hide", false);
-        speedFormat = preferences.getInt("speed_format", 0);
-        textAlignment = preferences.getInt("text_alignment", Gravity.LEFT);
-        textColor = preferences.getInt("text_color", Color.WHITE);
-        textSize = preferences.getInt("text_size", 14);
-        showOverStatusBar = preferences.getBoolean("show_over_status_bar", false);
-        lowSpeedThreshold = preferences.getInt("low_speed_threshold", 1024);
+    private void applySettings(SettingsSnapshot settings) {
+        isLocked = settings.isLocked;
+        speedFormat = settings.speedFormat;
+        textAlignment = settings.textAlignment;
+        textColor = settings.textColor;
+        textSize = settings.textSize;
+        showOverStatusBar = settings.showOverStatusBar;
+        showTransport = settings.showTransport;
+        isLowSpeedHideEnabled = settings.isLowSpeedHideEnabled;
+        lowSpeedThreshold = settings.lowSpeedThreshold;
     }
     
     private BroadcastReceiver settingsChangeReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
-            loadSettings();
-            updateViewSettings();
+            SettingsSnapshot.loadAsync(context, new SettingsSnapshot.OnSettingsLoadedListener() {
+                @Override
+                public void onSettingsLoaded(SettingsSnapshot settings) {
+                    if (!isDestroyed) {
+                        applySettings(settings);
+                        updateViewSettings();
+                    }
+                }
+            });
+        }
+    };
+    
+    private BroadcastReceiver screenStateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            powerModeController.setScreenOn(Intent.ACTION_SCREEN_ON.equals(intent.getAction()));
         }
     };
     
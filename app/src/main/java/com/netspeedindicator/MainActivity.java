@@ -25,6 +25,7 @@ public class MainActivity extends AppCompatActivity {
     private Switch floatingToggle;
     private Switch lockToggle;
     private Switch lowSpeedToggle;
+    private Switch transportToggle;
     private Switch statusBarToggle;
     
     private RadioGroup speedFormatGroup;
@@ -42,14 +43,25 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_main);
         
-        preferences = getSharedPreferences("NetSpeedIndicator", MODE_PRIVATE);
-        editor = preferences.edit();
+        // Read the settings off the main thread while the layout inflates
+        preferences = getSharedPreferences(SettingsSnapshot.PREFS_NAME, MODE_PRIVATE);
+        SettingsSnapshot.loadAsync(this, settings -> {
+            // A configuration change destroys the activity without finishing it
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            // Preferences are in memory by now, so edit() no longer waits for the disk
+            editor = preferences.edit();
+            loadSettings(settings);
+            setupListeners();
+            setControlsEnabled(true);
+        });
         
+        setContentView(R.layout.activity_main);
         initViews();
-        loadSettings();
-        setupListeners();
+        // Taps before the settings arrive would be dropped or overwritten, so wait for them
+        setControlsEnabled(false);
         
         // Check for system alert window permission
         if (!Settings.canDrawOverlays(this)) {
@@ -61,6 +73,7 @@ public class MainActivity extends AppCompatActivity {
         floatingToggle = findViewById(R.id.floating_toggle);
         lockToggle = findViewById(R.id.lock_toggle);
         lowSpeedToggle = findViewById(R.id.low_speed_toggle);
+        transportToggle = findViewById(R.id.transport_toggle);
         statusBarToggle = findViewById(R.id.status_bar_toggle);
         
         speedFormatGroup = findViewById(R.id.speed_format_group);
@@ -82,22 +95,39 @@ public class MainActivity extends AppCompatActivity {
         textSizeValue = findViewById(R.id.text_size_value);
     }
     
-    private void loadSettings() {
+    private void setControlsEnabled(boolean enabled) {
+        View[] controls = {
+                floatingToggle, lockToggle, lowSpeedToggle, transportToggle, statusBarToggle,
+                btnUp, btnDown, btnLeft, btnRight, btnCenter,
+                colorWhite, colorBlack, colorGreen, colorRed, colorBlue,
+                textSizeSeek
+        };
+        for (View control : controls) {
+            control.setEnabled(enabled);
+        }
+        // A disabled RadioGroup still lets its buttons be checked
+        for (RadioGroup group : new RadioGroup[]{speedFormatGroup, alignGroup}) {
+            for (int i = 0; i < group.getChildCount(); i++) {
+                group.getChildAt(i).setEnabled(enabled);
+            }
+        }
+    }
+    
+    private void loadSettings(SettingsSnapshot settings) {
         // Load floating window state
-        boolean isFloatingEnabled = preferences.getBoolean("floating_enabled", false);
-        floatingToggle.setChecked(isFloatingEnabled);
+        floatingToggle.setChecked(settings.isFloatingEnabled);
         
         // Load position lock
-        boolean isLocked = preferences.getBoolean("is_locked", false);
-        lockToggle.setChecked(isLocked);
+        lockToggle.setChecked(settings.isLocked);
         
         // Load low speed hide
-        boolean lowSpeedHide = preferences.getBoolean("low_speed_hide", false);
-        lowSpeedToggle.setChecked(lowSpeedHide);
+        lowSpeedToggle.setChecked(settings.isLowSpeedHideEnabled);
+        
+        // Load network type display
+        transportToggle.setChecked(settings.showTransport);
         
         // Load speed format
-        int speedFormat = preferences.getInt("speed_format", 0);
-        switch (speedFormat) {
+        switch (settings.speedFormat) {
             case 0:
                 speedFormatGroup.check(R.id.format_total);
                 break;
@@ -110,8 +140,7 @@ public class MainActivity extends AppCompatActivity {
         }
         
         // Load text alignment
-        int textAlignment = preferences.getInt("text_alignment", Gravity.LEFT);
-        switch (textAlignment) {
+        switch (settings.textAlignment) {
             case Gravity.LEFT:
                 alignGroup.check(R.id.align_left);
                 break;
@@ -124,18 +153,15 @@ public class MainActivity extends AppCompatActivity {
         }
         
         // Load text color
-        int textColor = preferences.getInt("text_color", Color.WHITE);
         // Update UI to reflect selected color
-        updateColorButtons(textColor);
+        updateColorButtons(settings.textColor);
         
         // Load text size
-        int textSize = preferences.getInt("text_size", 14);
-        textSizeSeek.setProgress(textSize);
-        textSizeValue.setText(textSize + "sp");
+        textSizeSeek.setProgress(settings.textSize);
+        textSizeValue.setText(settings.textSize + "sp");
         
         // Load status bar setting
-        boolean showOverStatusBar = preferences.getBoolean("show_over_status_bar", false);
-        statusBarToggle.setChecked(showOverStatusBar);
+        statusBarToggle.setChecked(settings.showOverStatusBar);
     }
     
     private void setupListeners() {
@@ -170,6 +196,13 @@ public class MainActivity extends AppCompatActivity {
             notifySettingsChanged();
         });
         
+        // Network type toggle
+        transportToggle.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            editor.putBoolean("show_transport", isChecked);
+            editor.apply();
+            notifySettingsChanged();
+        });
+        
         // Status bar toggle
         statusBarToggle.setOnCheckedChangeListener((buttonView, isChecked) -> {
             editor.putBoolean("show_over_status_bar", isChecked);
@@ -310,6 +343,8 @@ public class MainActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
         // Save settings when activity is destroyed
-        editor.apply();
+        if (editor != null) {
+            editor.apply();
+        }
     }
 }
\ No newline at end of file
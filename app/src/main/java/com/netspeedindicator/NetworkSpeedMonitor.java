@@ -1,118 +1,187 @@
 package com.netspeedindicator;
 
 import android.content.Context;
-import android.net.TrafficStats;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Debug;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
+import android.os.SystemClock;
 
-import java.util.Formatter;
-import java.util.Locale;
+import androidx.annotation.VisibleForTesting;
+
+import com.netspeedindicator.core.Clock;
+import com.netspeedindicator.core.PowerMode;
+import com.netspeedindicator.core.SamplerStats;
+import com.netspeedindicator.core.SamplingLoop;
+import com.netspeedindicator.core.SpeedCalculator;
+import com.netspeedindicator.core.SpeedFormatter;
+import com.netspeedindicator.core.SpeedListener;
+import com.netspeedindicator.core.TickScheduler;
+import com.netspeedindicator.core.TrafficSource;
+import com.netspeedindicator.core.Transport;
 
 public class NetworkSpeedMonitor {
     private Context context;
-    private long lastTotalRxBytes = 0;
-    private long lastTotalTxBytes = 0;
-    private long lastTimeStamp = 0;
+    private final SamplingLoop samplingLoop;
     private Handler handler;
-    private boolean isRunning = false;
-    private OnNetworkSpeedListener listener;
+    private ConnectivityManager connectivityManager;
+    private Network currentNetwork;
     private static final int MSG_UPDATE_SPEED = 1;
 
-    public interface OnNetworkSpeedListener {
-        void onNetworkSpeedUpdate(long downloadSpeed, long uploadSpeed, long totalSpeed);
+    public interface OnNetworkSpeedListener extends SpeedListener {
     }
 
     public NetworkSpeedMonitor(Context context) {
+        // Nanosecond and monotonic, and unlike System.nanoTime() it keeps counting in deep
+        // sleep, so a sample after sleep covers the real interval
+        this(context, new TrafficStatsSource(), new Clock() {
+            @Override
+            public long currentTimeNanos() {
+                return SystemClock.elapsedRealtimeNanos();
+            }
+        });
+    }
+
+    public NetworkSpeedMonitor(Context context, TrafficSource trafficSource, Clock clock) {
         this.context = context;
         init();
+        this.samplingLoop = new SamplingLoop(trafficSource, clock, new TickScheduler() {
+            @Override
+            public void schedule(long delayNanos) {
+                handler.removeMessages(MSG_UPDATE_SPEED);
+                handler.sendEmptyMessageDelayed(MSG_UPDATE_SPEED, delayNanos / SpeedCalculator.NANOS_PER_MILLI);
+            }
+
+            @Override
+            public void cancel() {
+                handler.removeMessages(MSG_UPDATE_SPEED);
+            }
+        }, new SamplingLoop.CpuTimer() {
+            @Override
+            public long threadCpuTimeNanos() {
+                return Debug.threadCpuTimeNanos();
+            }
+        });
     }
 
     private void init() {
-        lastTotalRxBytes = TrafficStats.getTotalRxBytes();
-        lastTotalTxBytes = TrafficStats.getTotalTxBytes();
-        lastTimeStamp = System.currentTimeMillis();
+        connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
 
         handler = new Handler(Looper.getMainLooper()) {
             @Override
             public void handleMessage(Message msg) {
                 if (msg.what == MSG_UPDATE_SPEED) {
-                    updateNetworkSpeed();
+                    samplingLoop.onTick();
                 }
             }
         };
     }
 
     public void startMonitoring(OnNetworkSpeedListener listener) {
-        if (isRunning) {
+        if (samplingLoop.isRunning()) {
             return;
         }
-        this.listener = listener;
-        isRunning = true;
-        handler.sendEmptyMessage(MSG_UPDATE_SPEED);
+
+        // Take the current default network synchronously so the first sample is not delayed
+        // until the callback arrives; the callback then only reports real changes.
+        currentNetwork = connectivityManager.getActiveNetwork();
+        Transport transport = currentNetwork == null
+                ? Transport.NONE
+                : getTransport(connectivityManager.getNetworkCapabilities(currentNetwork));
+        samplingLoop.start(listener, transport);
+        connectivityManager.registerDefaultNetworkCallback(networkCallback);
     }
 
     public void stopMonitoring() {
-        isRunning = false;
-        handler.removeMessages(MSG_UPDATE_SPEED);
-        listener = null;
+        if (samplingLoop.isRunning()) {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+        }
+        samplingLoop.stop();
     }
 
-    private void updateNetworkSpeed() {
-        if (!isRunning) {
-            return;
-        }
+    public void setPowerMode(PowerMode powerMode) {
+        samplingLoop.setPowerMode(powerMode);
+    }
 
-        long currentRxBytes = TrafficStats.getTotalRxBytes();
-        long currentTxBytes = TrafficStats.getTotalTxBytes();
-        long currentTimeStamp = System.currentTimeMillis();
+    /**
+     * Wakeups and thread CPU time spent sampling since start, for on-device power tests.
+     */
+    @VisibleForTesting
+    public SamplerStats getStats() {
+        return samplingLoop.getStats();
+    }
 
-        // Handle unsupported case (TrafficStats returns -1)
-        if (currentRxBytes == TrafficStats.UNSUPPORTED) {
-            currentRxBytes = lastTotalRxBytes;
+    private void onNetworkChanged(Network network, Transport transport) {
+        if (!samplingLoop.isRunning()) {
+            return;
         }
-        if (currentTxBytes == TrafficStats.UNSUPPORTED) {
-            currentTxBytes = lastTotalTxBytes;
+        if (network != null && network.equals(currentNetwork) && transport == samplingLoop.getTransport()) {
+            return;
         }
+        currentNetwork = network;
+        samplingLoop.onNetworkChanged(transport);
+    }
 
-        long rxBytes = currentRxBytes - lastTotalRxBytes;
-        long txBytes = currentTxBytes - lastTotalTxBytes;
-        long timeInterval = currentTimeStamp - lastTimeStamp;
-
-        if (timeInterval == 0) {
-            timeInterval = 1;
+    private final ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onAvailable(final Network network) {
+            final Transport transport = getTransport(connectivityManager.getNetworkCapabilities(network));
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onNetworkChanged(network, transport);
+                }
+            });
         }
 
-        // Ensure non-negative speeds
-        long downloadSpeed = Math.max(0, rxBytes * 1000 / timeInterval);
-        long uploadSpeed = Math.max(0, txBytes * 1000 / timeInterval);
-        long totalSpeed = downloadSpeed + uploadSpeed;
-
-        if (listener != null) {
-            listener.onNetworkSpeedUpdate(downloadSpeed, uploadSpeed, totalSpeed);
+        @Override
+        public void onCapabilitiesChanged(final Network network, NetworkCapabilities capabilities) {
+            final Transport transport = getTransport(capabilities);
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onNetworkChanged(network, transport);
+                }
+            });
         }
 
-        lastTotalRxBytes = currentRxBytes;
-        lastTotalTxBytes = currentTxBytes;
-        lastTimeStamp = currentTimeStamp;
-
-        handler.sendEmptyMessageDelayed(MSG_UPDATE_SPEED, 1000);
-    }
-
-    public static String formatSpeed(long speed) {
-        if (speed <= 0) {
-            return "0 B/s";
+        @Override
+        public void onLost(final Network network) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (network.equals(currentNetwork)) {
+                        onNetworkChanged(null, Transport.NONE);
+                    }
+                }
+            });
         }
+    };
 
-        String[] units = {"B/s", "KB/s", "MB/s", "GB/s"};
-        int unitIndex = 0;
-        double formattedSpeed = speed;
-
-        while (formattedSpeed >= 1024 && unitIndex < units.length - 1) {
-            formattedSpeed /= 1024;
-            unitIndex++;
+    private static Transport getTransport(NetworkCapabilities capabilities) {
+        if (capabilities == null) {
+            return Transport.OTHER;
+        }
+        // Check VPN first: a VPN network also carries the transport of its underlying network
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_VPN)) {
+            return Transport.VPN;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            return Transport.WIFI;
         }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            return Transport.CELLULAR;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            return Transport.ETHERNET;
+        }
+        return Transport.OTHER;
+    }
 
-        return new Formatter(Locale.getDefault()).format("%.1f %s", formattedSpeed, units[unitIndex]).toString();
+    public static String formatSpeed(long speed) {
+        return SpeedFormatter.formatSpeed(speed);
     }
 }
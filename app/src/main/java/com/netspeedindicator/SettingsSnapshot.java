@@ -0,0 +1,69 @@
+package com.netspeedindicator;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Gravity;
+
+import com.netspeedindicator.core.SpeedFilter;
+import com.netspeedindicator.core.SpeedFormatter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * All indicator settings read in one go. Loading goes through a background thread so the
+ * first SharedPreferences disk read never blocks the main thread.
+ */
+public class SettingsSnapshot {
+    public static final String PREFS_NAME = "NetSpeedIndicator";
+
+    private static final Executor LOADER = Executors.newSingleThreadExecutor();
+
+    public interface OnSettingsLoadedListener {
+        void onSettingsLoaded(SettingsSnapshot settings);
+    }
+
+    public final boolean isFloatingEnabled;
+    public final boolean isLocked;
+    public final boolean isLowSpeedHideEnabled;
+    public final int lowSpeedThreshold;
+    public final int speedFormat;
+    public final int textAlignment;
+    public final int textColor;
+    public final int textSize;
+    public final boolean showOverStatusBar;
+    public final boolean showTransport;
+    public final int positionX;
+    public final int positionY;
+
+    private SettingsSnapshot(SharedPreferences preferences) {
+        isFloatingEnabled = preferences.getBoolean("floating_enabled", false);
+        isLocked = preferences.getBoolean("is_locked", false);
+        isLowSpeedHideEnabled = preferences.getBoolean("low_speed_hide", false);
+        lowSpeedThreshold = preferences.getInt("low_speed_threshold", SpeedFilter.DEFAULT_THRESHOLD);
+        speedFormat = preferences.getInt("speed_format", SpeedFormatter.FORMAT_TOTAL);
+        textAlignment = preferences.getInt("text_alignment", Gravity.LEFT);
+        textColor = preferences.getInt("text_color", Color.WHITE);
+        textSize = preferences.getInt("text_size", 14);
+        showOverStatusBar = preferences.getBoolean("show_over_status_bar", false);
+        showTransport = preferences.getBoolean("show_transport", false);
+        positionX = preferences.getInt("position_x", 50);
+        positionY = preferences.getInt("position_y", 50);
+    }
+
+    /**
+     * Reads the settings on the loader thread and delivers them on the main thread.
+     */
+    public static void loadAsync(Context context, final OnSettingsLoadedListener listener) {
+        final Context appContext = context.getApplicationContext();
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        LOADER.execute(() -> {
+            SharedPreferences preferences = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            final SettingsSnapshot settings = new SettingsSnapshot(preferences);
+            mainHandler.post(() -> listener.onSettingsLoaded(settings));
+        });
+    }
+}
@@ -0,0 +1,17 @@
+package com.netspeedindicator;
+
+import android.net.TrafficStats;
+
+import com.netspeedindicator.core.TrafficSource;
+
+public class TrafficStatsSource implements TrafficSource {
+    @Override
+    public long getTotalRxBytes() {
+        return TrafficStats.getTotalRxBytes();
+    }
+
+    @Override
+    public long getTotalTxBytes() {
+        return TrafficStats.getTotalTxBytes();
+    }
+}
@@ -0,0 +1,90 @@
+package com.netspeedindicator.benchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import kotlin.Unit;
+
+/**
+ * Cold start of MainActivity and time from FloatingWindowService.onCreate() to the first
+ * speed on the overlay ("TimeToFirstSpeed" trace section), with and without the Baseline Profile.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    private static final String PACKAGE_NAME = "com.netspeedindicator";
+    private static final long TIMEOUT_MS = 5000;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void startupNoCompilation() {
+        startup(new CompilationMode.None());
+    }
+
+    @Test
+    public void startupBaselineProfile() {
+        startup(new CompilationMode.Partial());
+    }
+
+    private void startup(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Arrays.asList(new StartupTimingMetric(),
+                        new TraceSectionMetric("TimeToFirstSpeed", TraceSectionMetric.Mode.First, true)),
+                compilationMode,
+                StartupMode.COLD,
+                10,
+                scope -> {
+                    grantOverlayPermission(scope);
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    startFloatingWindow(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    private static void grantOverlayPermission(MacrobenchmarkScope scope) {
+        try {
+            scope.getDevice().executeShellCommand("appops set " + PACKAGE_NAME + " SYSTEM_ALERT_WINDOW allow");
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not grant overlay permission", e);
+        }
+    }
+
+    private static void startFloatingWindow(MacrobenchmarkScope scope) {
+        // The controls are enabled once the settings have been loaded and applied, before that
+        // isChecked() would read the layout default
+        UiObject2 toggle = scope.getDevice().wait(
+                Until.findObject(By.res(PACKAGE_NAME, "floating_toggle").enabled(true)), TIMEOUT_MS);
+        if (toggle == null) {
+            throw new IllegalStateException("Settings were not loaded within " + TIMEOUT_MS + " ms");
+        }
+        // The toggle remembers its state across runs, the service itself died with the process
+        if (toggle.isChecked()) {
+            toggle.click();
+        }
+        toggle.click();
+        if (!scope.getDevice().wait(Until.hasObject(By.res(PACKAGE_NAME, "speed_text")), TIMEOUT_MS)) {
+            throw new IllegalStateException("Overlay did not appear within " + TIMEOUT_MS + " ms");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.netspeedindicator.core.benchmark;
+
+import com.netspeedindicator.core.SpeedFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FormatSpeedBenchmark {
+    // 0 B/s, B/s, KB/s, MB/s, GB/s
+    @Param({"0", "512", "153600", "52428800", "2147483648"})
+    public long speed;
+
+    @Benchmark
+    public String formatSpeed() {
+        return SpeedFormatter.formatSpeed(speed);
+    }
+
+    @Benchmark
+    public String formatDisplayVertical() {
+        return SpeedFormatter.formatDisplay(SpeedFormatter.FORMAT_UP_DOWN_VERTICAL, speed, speed / 8, speed + speed / 8,
+                "\u2193", "\u2191");
+    }
+}
@@ -0,0 +1,59 @@
+package com.netspeedindicator.core.benchmark;
+
+import com.netspeedindicator.core.SpeedCalculator;
+import com.netspeedindicator.core.SpeedFilter;
+import com.netspeedindicator.core.SpeedFormatter;
+import com.netspeedindicator.core.SpeedPresenter;
+import com.netspeedindicator.core.Transport;
+import com.netspeedindicator.core.replay.RecordingOverlayView;
+import com.netspeedindicator.core.replay.ReplayEngine;
+import com.netspeedindicator.core.replay.TrafficTrace;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole pipeline (sampler, filter, formatter, overlay) over synthetic traces:
+ * one hour at the real 1 Hz cadence and a minute of 10k samples per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReplayBenchmark {
+    @Param({"3600000:1", "60000:10000"})
+    public String trace;
+
+    private TrafficTrace traffic;
+    private long sampleIntervalNanos;
+    private final Map<Transport, String> transportLabels = new EnumMap<>(Transport.class);
+
+    @Setup
+    public void setUp() {
+        String[] parts = trace.split(":");
+        int samplesPerSecond = Integer.parseInt(parts[1]);
+        traffic = TrafficTrace.synthetic(Long.parseLong(parts[0]), samplesPerSecond, 42);
+        // Sample every trace point
+        sampleIntervalNanos = SpeedCalculator.NANOS_PER_SECOND / samplesPerSecond;
+        transportLabels.put(Transport.WIFI, "Wi-Fi");
+        transportLabels.put(Transport.CELLULAR, "Mobile");
+    }
+
+    @Benchmark
+    public int replay() {
+        RecordingOverlayView view = new RecordingOverlayView();
+        SpeedPresenter presenter = new SpeedPresenter(view, "\u2193", "\u2191", transportLabels);
+        presenter.configure(SpeedFormatter.FORMAT_UP_DOWN_VERTICAL, true, SpeedFilter.DEFAULT_THRESHOLD, true);
+        new ReplayEngine(traffic).replay(presenter, sampleIntervalNanos);
+        return view.getEvents().size();
+    }
+}
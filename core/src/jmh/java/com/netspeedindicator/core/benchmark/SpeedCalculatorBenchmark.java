@@ -0,0 +1,105 @@
+package com.netspeedindicator.core.benchmark;
+
+import com.netspeedindicator.core.Clock;
+import com.netspeedindicator.core.OverlayView;
+import com.netspeedindicator.core.PowerModeController;
+import com.netspeedindicator.core.SpeedCalculator;
+import com.netspeedindicator.core.SpeedFilter;
+import com.netspeedindicator.core.SpeedFormatter;
+import com.netspeedindicator.core.SpeedPresenter;
+import com.netspeedindicator.core.SpeedSampler;
+import com.netspeedindicator.core.TrafficSource;
+import com.netspeedindicator.core.Transport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpeedCalculatorBenchmark implements TrafficSource, Clock {
+    private SpeedCalculator calculator;
+    private SpeedSampler sampler;
+    private SpeedPresenter presenter;
+    private long rxBytes;
+    private long txBytes;
+    private long timeStamp;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        calculator = new SpeedCalculator();
+        calculator.reset(0, 0, 0);
+        sampler = new SpeedSampler(this, this);
+        sampler.onNetworkChanged(Transport.WIFI, null);
+
+        Map<Transport, String> transportLabels = new EnumMap<>(Transport.class);
+        transportLabels.put(Transport.WIFI, "Wi-Fi");
+        transportLabels.put(Transport.CELLULAR, "Mobile");
+        presenter = new SpeedPresenter(new OverlayView() {
+            private boolean visible = true;
+
+            @Override
+            public boolean isVisible() {
+                return visible;
+            }
+
+            @Override
+            public void setVisible(boolean visible) {
+                this.visible = visible;
+            }
+
+            @Override
+            public void setText(String text) {
+                blackhole.consume(text);
+            }
+        }, "\u2193", "\u2191", transportLabels);
+        presenter.configure(SpeedFormatter.FORMAT_UP_DOWN_HORIZONTAL, true, SpeedFilter.DEFAULT_THRESHOLD, true);
+        presenter.setPowerModeController(new PowerModeController());
+    }
+
+    @Override
+    public long getTotalRxBytes() {
+        return rxBytes;
+    }
+
+    @Override
+    public long getTotalTxBytes() {
+        return txBytes;
+    }
+
+    @Override
+    public long currentTimeNanos() {
+        return timeStamp;
+    }
+
+    private void advance() {
+        rxBytes += 1_250_000;
+        txBytes += 96_000;
+        timeStamp += SpeedCalculator.NANOS_PER_SECOND;
+    }
+
+    @Benchmark
+    public long delta() {
+        advance();
+        calculator.update(rxBytes, txBytes, timeStamp);
+        return calculator.getTotalSpeed();
+    }
+
+    // Same path as NetworkSpeedMonitor -> FloatingWindowService: sample, then the presenter's
+    // power mode gate, low speed rule, format and transport label
+    @Benchmark
+    public void listenerDispatch() {
+        advance();
+        sampler.sample(presenter);
+    }
+}
@@ -0,0 +1,20 @@
+package com.netspeedindicator.core;
+
+/**
+ * Time source for the sampler, in nanoseconds so replayed traces can sample faster than 1 kHz.
+ * Only differences matter, so the origin is arbitrary, but the clock must really tick in
+ * nanoseconds: a coarser clock makes two samples in the same tick divide by 1 ns.
+ */
+public interface Clock {
+    /**
+     * Monotonic JVM clock.
+     */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeNanos() {
+            return System.nanoTime();
+        }
+    };
+
+    long currentTimeNanos();
+}
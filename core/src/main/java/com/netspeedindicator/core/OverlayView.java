@@ -0,0 +1,12 @@
+package com.netspeedindicator.core;
+
+/**
+ * The parts of the floating window the speed pipeline touches.
+ */
+public interface OverlayView {
+    boolean isVisible();
+
+    void setVisible(boolean visible);
+
+    void setText(String text);
+}
@@ -0,0 +1,26 @@
+package com.netspeedindicator.core;
+
+/**
+ * Sampling cadence of the monitor. The overlay is only drawn in ACTIVE. In HIDDEN the
+ * low speed rule has hidden it, so nothing is drawn, but sampling continues often enough
+ * for the rule to bring it back. SCREEN_OFF does not sample at all; turning the screen
+ * back on takes one catch-up sample.
+ */
+public enum PowerMode {
+    ACTIVE(1000),
+    HIDDEN(2000),
+    SCREEN_OFF(0);
+
+    private final long sampleIntervalMs;
+
+    PowerMode(long sampleIntervalMs) {
+        this.sampleIntervalMs = sampleIntervalMs;
+    }
+
+    /**
+     * @return the interval between samples, or 0 if this mode does not sample
+     */
+    public long getSampleIntervalMs() {
+        return sampleIntervalMs;
+    }
+}
@@ -0,0 +1,56 @@
+package com.netspeedindicator.core;
+
+/**
+ * Picks the {@link PowerMode} from the screen state and the overlay visibility.
+ */
+public class PowerModeController {
+    public interface OnPowerModeChangeListener {
+        void onPowerModeChanged(PowerMode oldMode, PowerMode newMode);
+    }
+
+    private boolean screenOn = true;
+    private boolean overlayVisible = true;
+    private PowerMode mode = PowerMode.ACTIVE;
+    private OnPowerModeChangeListener listener;
+
+    public void setOnPowerModeChangeListener(OnPowerModeChangeListener listener) {
+        this.listener = listener;
+    }
+
+    public void setScreenOn(boolean screenOn) {
+        this.screenOn = screenOn;
+        update();
+    }
+
+    public void setOverlayVisible(boolean overlayVisible) {
+        this.overlayVisible = overlayVisible;
+        update();
+    }
+
+    public PowerMode getMode() {
+        return mode;
+    }
+
+    public boolean isUiEnabled() {
+        return mode != PowerMode.SCREEN_OFF;
+    }
+
+    private void update() {
+        PowerMode newMode;
+        if (!screenOn) {
+            newMode = PowerMode.SCREEN_OFF;
+        } else if (!overlayVisible) {
+            newMode = PowerMode.HIDDEN;
+        } else {
+            newMode = PowerMode.ACTIVE;
+        }
+        if (newMode == mode) {
+            return;
+        }
+        PowerMode oldMode = mode;
+        mode = newMode;
+        if (listener != null) {
+            listener.onPowerModeChanged(oldMode, newMode);
+        }
+    }
+}
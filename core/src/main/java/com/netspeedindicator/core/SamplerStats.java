@@ -0,0 +1,27 @@
+package com.netspeedindicator.core;
+
+/**
+ * Wakeup and CPU time counters for the sampling loop, so power modes can be compared.
+ */
+public class SamplerStats {
+    private long wakeups = 0;
+    private long cpuTimeNanos = 0;
+
+    public void recordWakeup(long cpuTimeNanos) {
+        wakeups++;
+        this.cpuTimeNanos += cpuTimeNanos;
+    }
+
+    public long getWakeups() {
+        return wakeups;
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    public void reset() {
+        wakeups = 0;
+        cpuTimeNanos = 0;
+    }
+}
@@ -0,0 +1,131 @@
+package com.netspeedindicator.core;
+
+/**
+ * When to sample, when to retake the baseline and when to stay idle. NetworkSpeedMonitor
+ * drives it from a Handler and ReplayEngine from trace time, so both follow the same rules:
+ * <ul>
+ * <li>the first sample is taken synchronously in {@link #start}, on the baseline from
+ * construction</li>
+ * <li>a network change retakes the baseline and the next sample follows one interval later</li>
+ * <li>offline or in {@link PowerMode#SCREEN_OFF}, nothing is scheduled</li>
+ * <li>leaving {@link PowerMode#SCREEN_OFF} takes an immediate catch-up sample</li>
+ * </ul>
+ */
+public class SamplingLoop {
+    public interface CpuTimer {
+        long threadCpuTimeNanos();
+    }
+
+    private final SpeedSampler sampler;
+    private final TickScheduler scheduler;
+    private final CpuTimer cpuTimer;
+    private final SamplerStats stats = new SamplerStats();
+    private PowerMode powerMode = PowerMode.ACTIVE;
+    private long updateIntervalNanos = PowerMode.ACTIVE.getSampleIntervalMs() * SpeedCalculator.NANOS_PER_MILLI;
+    private boolean isRunning = false;
+    private SpeedListener listener;
+
+    public SamplingLoop(TrafficSource trafficSource, Clock clock, TickScheduler scheduler, CpuTimer cpuTimer) {
+        this.sampler = new SpeedSampler(trafficSource, clock);
+        this.scheduler = scheduler;
+        this.cpuTimer = cpuTimer;
+    }
+
+    public void start(SpeedListener listener, Transport transport) {
+        if (isRunning) {
+            return;
+        }
+        this.listener = listener;
+        isRunning = true;
+
+        if (transport == Transport.NONE) {
+            sampler.onNetworkChanged(transport, listener);
+        } else {
+            // Keep the baseline from construction so the first sample covers a real interval
+            sampler.setTransport(transport);
+        }
+        onTick();
+    }
+
+    public void stop() {
+        isRunning = false;
+        scheduler.cancel();
+        listener = null;
+    }
+
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    public Transport getTransport() {
+        return sampler.getTransport();
+    }
+
+    public SamplerStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Fixed cadence, applied from the next scheduled sample on. Replaced by the next
+     * {@link #setPowerMode(PowerMode)}.
+     */
+    public void setUpdateInterval(long updateIntervalNanos) {
+        this.updateIntervalNanos = updateIntervalNanos;
+    }
+
+    public void setPowerMode(PowerMode powerMode) {
+        PowerMode oldMode = this.powerMode;
+        this.powerMode = powerMode;
+        if (powerMode == PowerMode.SCREEN_OFF) {
+            scheduler.cancel();
+            return;
+        }
+        updateIntervalNanos = powerMode.getSampleIntervalMs() * SpeedCalculator.NANOS_PER_MILLI;
+        if (oldMode == PowerMode.SCREEN_OFF) {
+            sampleNow();
+        }
+    }
+
+    /**
+     * Samples right away instead of waiting for the pending tick. The delta covers the
+     * real time since the previous sample, however long the interval was.
+     */
+    public void sampleNow() {
+        if (!isPolling()) {
+            return;
+        }
+        scheduler.schedule(0);
+    }
+
+    public void onTick() {
+        if (!isPolling()) {
+            return;
+        }
+
+        long cpuStart = cpuTimer.threadCpuTimeNanos();
+        sampler.sample(listener);
+        stats.recordWakeup(cpuTimer.threadCpuTimeNanos() - cpuStart);
+
+        scheduler.schedule(updateIntervalNanos);
+    }
+
+    /**
+     * Called when the default network or its transport changes. Counters are re-baselined,
+     * so polling resumes one interval later instead of reporting a delta across the
+     * handover. Offline costs no wakeups at all.
+     */
+    public void onNetworkChanged(Transport transport) {
+        if (!isRunning) {
+            return;
+        }
+        scheduler.cancel();
+        sampler.onNetworkChanged(transport, listener);
+        if (isPolling()) {
+            scheduler.schedule(updateIntervalNanos);
+        }
+    }
+
+    private boolean isPolling() {
+        return isRunning && sampler.isOnline() && powerMode != PowerMode.SCREEN_OFF;
+    }
+}
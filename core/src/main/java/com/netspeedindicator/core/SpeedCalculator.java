@@ -0,0 +1,74 @@
+package com.netspeedindicator.core;
+
+/**
+ * Turns successive cumulative rx/tx byte counters into per-second speeds.
+ * Pure JVM so it can be benchmarked and replayed without a device.
+ */
+public class SpeedCalculator {
+    // Same value as android.net.TrafficStats.UNSUPPORTED
+    public static final long UNSUPPORTED = -1;
+
+    public static final long NANOS_PER_MILLI = 1000000L;
+    public static final long NANOS_PER_SECOND = 1000000000L;
+
+    private long lastTotalRxBytes = 0;
+    private long lastTotalTxBytes = 0;
+    private long lastTimeNanos = 0;
+
+    private long downloadSpeed = 0;
+    private long uploadSpeed = 0;
+
+    public void reset(long totalRxBytes, long totalTxBytes, long timeNanos) {
+        lastTotalRxBytes = totalRxBytes;
+        lastTotalTxBytes = totalTxBytes;
+        lastTimeNanos = timeNanos;
+        downloadSpeed = 0;
+        uploadSpeed = 0;
+    }
+
+    public void update(long currentRxBytes, long currentTxBytes, long currentTimeNanos) {
+        // Handle unsupported case (TrafficStats returns -1)
+        if (currentRxBytes == UNSUPPORTED) {
+            currentRxBytes = lastTotalRxBytes;
+        }
+        if (currentTxBytes == UNSUPPORTED) {
+            currentTxBytes = lastTotalTxBytes;
+        }
+
+        long rxBytes = currentRxBytes - lastTotalRxBytes;
+        long txBytes = currentTxBytes - lastTotalTxBytes;
+        long timeInterval = currentTimeNanos - lastTimeNanos;
+
+        if (timeInterval == 0) {
+            timeInterval = 1;
+        }
+
+        // Ensure non-negative speeds
+        downloadSpeed = Math.max(0, perSecond(rxBytes, timeInterval));
+        uploadSpeed = Math.max(0, perSecond(txBytes, timeInterval));
+
+        lastTotalRxBytes = currentRxBytes;
+        lastTotalTxBytes = currentTxBytes;
+        lastTimeNanos = currentTimeNanos;
+    }
+
+    private static long perSecond(long bytes, long timeIntervalNanos) {
+        if (Math.abs(bytes) <= Long.MAX_VALUE / NANOS_PER_SECOND) {
+            return bytes * NANOS_PER_SECOND / timeIntervalNanos;
+        }
+        // More than ~9 GB in one interval would overflow the exact form
+        return (long) ((double) bytes * NANOS_PER_SECOND / timeIntervalNanos);
+    }
+
+    public long getDownloadSpeed() {
+        return downloadSpeed;
+    }
+
+    public long getUploadSpeed() {
+        return uploadSpeed;
+    }
+
+    public long getTotalSpeed() {
+        return downloadSpeed + uploadSpeed;
+    }
+}
@@ -0,0 +1,29 @@
+package com.netspeedindicator.core;
+
+/**
+ * Low speed hide rule: the overlay is hidden while the total speed is below the threshold.
+ */
+public class SpeedFilter {
+    public static final int DEFAULT_THRESHOLD = 1024; // 1KB/s
+
+    private boolean enabled;
+    private long threshold;
+
+    public SpeedFilter() {
+        this(false, DEFAULT_THRESHOLD);
+    }
+
+    public SpeedFilter(boolean enabled, long threshold) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+    }
+
+    public void configure(boolean enabled, long threshold) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+    }
+
+    public boolean shouldHide(long totalSpeed) {
+        return enabled && totalSpeed < threshold;
+    }
+}
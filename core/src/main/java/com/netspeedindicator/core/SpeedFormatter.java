@@ -0,0 +1,51 @@
+package com.netspeedindicator.core;
+
+import java.util.Locale;
+
+public final class SpeedFormatter {
+    public static final int FORMAT_TOTAL = 0;
+    public static final int FORMAT_UP_DOWN_HORIZONTAL = 1;
+    public static final int FORMAT_UP_DOWN_VERTICAL = 2;
+
+    private static final String[] UNITS = {"B/s", "KB/s", "MB/s", "GB/s"};
+
+    private SpeedFormatter() {
+    }
+
+    public static String formatSpeed(long speed) {
+        if (speed <= 0) {
+            return "0 B/s";
+        }
+
+        int unitIndex = 0;
+        double formattedSpeed = speed;
+
+        while (formattedSpeed >= 1024 && unitIndex < UNITS.length - 1) {
+            formattedSpeed /= 1024;
+            unitIndex++;
+        }
+
+        return String.format(Locale.getDefault(), "%.1f %s", formattedSpeed, UNITS[unitIndex]);
+    }
+
+    /**
+     * Builds the overlay text for the given speed format.
+     * downLabel/upLabel are the arrows from the app resources.
+     */
+    public static String formatDisplay(int speedFormat, long downloadSpeed, long uploadSpeed, long totalSpeed,
+                                       String downLabel, String upLabel) {
+        switch (speedFormat) {
+            case FORMAT_UP_DOWN_HORIZONTAL:
+                return downLabel + formatSpeed(downloadSpeed) + " " + upLabel + formatSpeed(uploadSpeed);
+
+            case FORMAT_UP_DOWN_VERTICAL:
+                return downLabel + formatSpeed(downloadSpeed) + "\n" + upLabel + formatSpeed(uploadSpeed);
+
+            case FORMAT_TOTAL:
+                return formatSpeed(totalSpeed);
+
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.netspeedindicator.core;
+
+public interface SpeedListener {
+    void onNetworkSpeedUpdate(long downloadSpeed, long uploadSpeed, long totalSpeed, Transport transport);
+}
@@ -0,0 +1,83 @@
+package com.netspeedindicator.core;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Applies the low speed hide rule and the speed format to an {@link OverlayView}.
+ */
+public class SpeedPresenter implements SpeedListener {
+    private final OverlayView view;
+    private final SpeedFilter lowSpeedFilter = new SpeedFilter();
+    private final String downLabel;
+    private final String upLabel;
+    private final Map<Transport, String> transportLabels;
+    private int speedFormat = SpeedFormatter.FORMAT_TOTAL;
+    private boolean showTransport = false;
+    private PowerModeController powerModeController;
+
+    /**
+     * @param transportLabels prefix shown per transport when showTransport is set;
+     *                        transports without a label are shown without a prefix
+     */
+    public SpeedPresenter(OverlayView view, String downLabel, String upLabel,
+                          Map<Transport, String> transportLabels) {
+        this.view = view;
+        this.downLabel = downLabel;
+        this.upLabel = upLabel;
+        this.transportLabels = new EnumMap<>(Transport.class);
+        this.transportLabels.putAll(transportLabels);
+    }
+
+    public void configure(int speedFormat, boolean lowSpeedHide, long lowSpeedThreshold, boolean showTransport) {
+        this.speedFormat = speedFormat;
+        this.showTransport = showTransport;
+        lowSpeedFilter.configure(lowSpeedHide, lowSpeedThreshold);
+    }
+
+    /**
+     * Skips all view updates while the controller says the UI is off, and reports
+     * overlay visibility changes back to it.
+     */
+    public void setPowerModeController(PowerModeController powerModeController) {
+        this.powerModeController = powerModeController;
+        if (powerModeController != null) {
+            powerModeController.setOverlayVisible(view.isVisible());
+        }
+    }
+
+    @Override
+    public void onNetworkSpeedUpdate(long downloadSpeed, long uploadSpeed, long totalSpeed, Transport transport) {
+        if (powerModeController != null && !powerModeController.isUiEnabled()) {
+            return;
+        }
+
+        // Check low speed hide
+        if (lowSpeedFilter.shouldHide(totalSpeed)) {
+            if (view.isVisible()) {
+                setVisible(false);
+            }
+            return;
+        }
+        if (!view.isVisible()) {
+            setVisible(true);
+        }
+
+        String text = SpeedFormatter.formatDisplay(speedFormat, downloadSpeed, uploadSpeed, totalSpeed,
+                downLabel, upLabel);
+        if (showTransport) {
+            String transportLabel = transportLabels.get(transport);
+            if (transportLabel != null && !transportLabel.isEmpty()) {
+                text = transportLabel + " " + text;
+            }
+        }
+        view.setText(text);
+    }
+
+    private void setVisible(boolean visible) {
+        view.setVisible(visible);
+        if (powerModeController != null) {
+            powerModeController.setOverlayVisible(visible);
+        }
+    }
+}
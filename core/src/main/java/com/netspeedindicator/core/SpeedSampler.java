@@ -0,0 +1,60 @@
+package com.netspeedindicator.core;
+
+/**
+ * One sampling step: read the counters and clock, compute the delta and dispatch it.
+ * Scheduling is left to the caller (Handler on device, the replay engine on the JVM).
+ */
+public class SpeedSampler {
+    private final TrafficSource trafficSource;
+    private final Clock clock;
+    private final SpeedCalculator calculator = new SpeedCalculator();
+    private Transport transport = Transport.OTHER;
+
+    public SpeedSampler(TrafficSource trafficSource, Clock clock) {
+        this.trafficSource = trafficSource;
+        this.clock = clock;
+        rebaseline();
+    }
+
+    public void rebaseline() {
+        calculator.reset(trafficSource.getTotalRxBytes(), trafficSource.getTotalTxBytes(), clock.currentTimeNanos());
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Tags following samples without retaking the baseline, for when the network is known
+     * not to have changed since the last sample.
+     */
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
+    public boolean isOnline() {
+        return transport != Transport.NONE;
+    }
+
+    /**
+     * Called when the default network changes. Counters jump when interfaces come and go,
+     * so the baseline is retaken instead of reporting a delta across the handover.
+     * Going offline reports a single zero sample; no samples should be taken until the
+     * next network arrives.
+     */
+    public void onNetworkChanged(Transport transport, SpeedListener listener) {
+        this.transport = transport;
+        rebaseline();
+        if (transport == Transport.NONE && listener != null) {
+            listener.onNetworkSpeedUpdate(0, 0, 0, Transport.NONE);
+        }
+    }
+
+    public void sample(SpeedListener listener) {
+        calculator.update(trafficSource.getTotalRxBytes(), trafficSource.getTotalTxBytes(), clock.currentTimeNanos());
+        if (listener != null) {
+            listener.onNetworkSpeedUpdate(calculator.getDownloadSpeed(), calculator.getUploadSpeed(),
+                    calculator.getTotalSpeed(), transport);
+        }
+    }
+}
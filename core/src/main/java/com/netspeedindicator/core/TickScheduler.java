@@ -0,0 +1,11 @@
+package com.netspeedindicator.core;
+
+/**
+ * Runs {@link SamplingLoop#onTick()} after a delay: a Handler on device, trace time in replay.
+ * At most one tick is pending; scheduling a new one replaces it.
+ */
+public interface TickScheduler {
+    void schedule(long delayNanos);
+
+    void cancel();
+}
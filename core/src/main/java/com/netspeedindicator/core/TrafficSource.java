@@ -0,0 +1,10 @@
+package com.netspeedindicator.core;
+
+/**
+ * Cumulative byte counters, backed by TrafficStats on device and by a trace in replay.
+ */
+public interface TrafficSource {
+    long getTotalRxBytes();
+
+    long getTotalTxBytes();
+}
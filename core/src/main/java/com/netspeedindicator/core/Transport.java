@@ -0,0 +1,13 @@
+package com.netspeedindicator.core;
+
+/**
+ * Transport of the default network a sample was taken on. NONE means offline.
+ */
+public enum Transport {
+    NONE,
+    WIFI,
+    CELLULAR,
+    ETHERNET,
+    VPN,
+    OTHER
+}
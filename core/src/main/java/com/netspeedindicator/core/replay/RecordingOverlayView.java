@@ -0,0 +1,35 @@
+package com.netspeedindicator.core.replay;
+
+import com.netspeedindicator.core.OverlayView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records every text and visibility change instead of drawing it.
+ * Events read {@code text:<shown string>} and {@code visibility:VISIBLE|GONE}.
+ */
+public class RecordingOverlayView implements OverlayView {
+    private final List<String> events = new ArrayList<>();
+    private boolean visible = true;
+
+    @Override
+    public boolean isVisible() {
+        return visible;
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+        events.add(visible ? "visibility:VISIBLE" : "visibility:GONE");
+    }
+
+    @Override
+    public void setText(String text) {
+        events.add("text:" + text);
+    }
+
+    public List<String> getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,172 @@
+package com.netspeedindicator.core.replay;
+
+import com.netspeedindicator.core.Clock;
+import com.netspeedindicator.core.PowerMode;
+import com.netspeedindicator.core.PowerModeController;
+import com.netspeedindicator.core.SamplerStats;
+import com.netspeedindicator.core.SamplingLoop;
+import com.netspeedindicator.core.SpeedCalculator;
+import com.netspeedindicator.core.SpeedListener;
+import com.netspeedindicator.core.TickScheduler;
+import com.netspeedindicator.core.TrafficSource;
+import com.netspeedindicator.core.Transport;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs {@link SamplingLoop} against a {@link TrafficTrace} in simulated time, as fast as the
+ * CPU allows. The trace supplies the counters and transport changes, the engine plays the
+ * Handler and the clock, so hours of traffic replay in milliseconds and the output is
+ * identical on every run. Only {@link SamplerStats#getCpuTimeNanos()} varies, as it measures
+ * the real CPU time this thread spent sampling.
+ * <p>
+ * Counters between two trace samples hold the value of the earlier one. When a trace sample,
+ * a screen change and a tick fall on the same instant they are applied in that order.
+ */
+public class ReplayEngine implements TrafficSource, Clock, TickScheduler {
+    private static final long NONE = Long.MAX_VALUE;
+
+    private final TrafficTrace trace;
+    private final List<long[]> screenOffPeriods = new ArrayList<>();
+    private int position = 0;
+    private long now = 0;
+    private long nextTick = NONE;
+
+    public ReplayEngine(TrafficTrace trace) {
+        if (trace.size() == 0) {
+            throw new IllegalArgumentException("Trace is empty");
+        }
+        this.trace = trace;
+    }
+
+    /**
+     * Turns the screen off between startMs (inclusive) and endMs (exclusive) of trace time
+     * for {@link #replay(SpeedListener, PowerModeController)}.
+     * Periods must be added in order and must not overlap.
+     */
+    public ReplayEngine addScreenOff(long startMs, long endMs) {
+        long previousEnd = screenOffPeriods.isEmpty() ? Long.MIN_VALUE
+                : screenOffPeriods.get(screenOffPeriods.size() - 1)[1];
+        long startNanos = startMs * SpeedCalculator.NANOS_PER_MILLI;
+        long endNanos = endMs * SpeedCalculator.NANOS_PER_MILLI;
+        if (endNanos <= startNanos || startNanos < previousEnd) {
+            throw new IllegalArgumentException("Screen off periods must be ordered and non-empty");
+        }
+        screenOffPeriods.add(new long[]{startNanos, endNanos});
+        return this;
+    }
+
+    @Override
+    public long getTotalRxBytes() {
+        return trace.getRxBytes(position);
+    }
+
+    @Override
+    public long getTotalTxBytes() {
+        return trace.getTxBytes(position);
+    }
+
+    @Override
+    public long currentTimeNanos() {
+        return now;
+    }
+
+    @Override
+    public void schedule(long delayNanos) {
+        nextTick = now + delayNanos;
+    }
+
+    @Override
+    public void cancel() {
+        nextTick = NONE;
+    }
+
+    /**
+     * Replays the trace at the monitor's default 1 s cadence.
+     */
+    public SamplerStats replay(SpeedListener listener) {
+        return replay(listener, PowerMode.ACTIVE.getSampleIntervalMs() * SpeedCalculator.NANOS_PER_MILLI);
+    }
+
+    /**
+     * Replays the trace at a fixed cadence, e.g. the trace's own sample rate for stress runs.
+     */
+    public SamplerStats replay(SpeedListener listener, long sampleIntervalNanos) {
+        SamplingLoop loop = newLoop();
+        loop.setUpdateInterval(sampleIntervalNanos);
+        return run(loop, listener, null);
+    }
+
+    /**
+     * Replays the trace with power modes: the screen follows {@link #addScreenOff(long, long)}
+     * and the cadence follows the controller, exactly as in FloatingWindowService.
+     */
+    public SamplerStats replay(SpeedListener listener, PowerModeController powerModeController) {
+        final SamplingLoop loop = newLoop();
+        powerModeController.setOnPowerModeChangeListener(new PowerModeController.OnPowerModeChangeListener() {
+            @Override
+            public void onPowerModeChanged(PowerMode oldMode, PowerMode newMode) {
+                loop.setPowerMode(newMode);
+            }
+        });
+        loop.setPowerMode(powerModeController.getMode());
+        return run(loop, listener, powerModeController);
+    }
+
+    private SamplingLoop newLoop() {
+        position = 0;
+        now = trace.getTimeNanos(0);
+        nextTick = NONE;
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        return new SamplingLoop(this, this, this, new SamplingLoop.CpuTimer() {
+            @Override
+            public long threadCpuTimeNanos() {
+                return threadMXBean.getCurrentThreadCpuTime();
+            }
+        });
+    }
+
+    private SamplerStats run(SamplingLoop loop, SpeedListener listener, PowerModeController powerModeController) {
+        long end = trace.getTimeNanos(trace.size() - 1);
+        int nextSample = 1;
+        int period = 0;
+        boolean screenOn = true;
+
+        loop.start(listener, trace.getTransport(0));
+        while (true) {
+            long sampleTime = nextSample < trace.size() ? trace.getTimeNanos(nextSample) : NONE;
+            long screenTime = NONE;
+            if (powerModeController != null && period < screenOffPeriods.size()) {
+                screenTime = screenOffPeriods.get(period)[screenOn ? 0 : 1];
+            }
+            long tickTime = nextTick <= end ? nextTick : NONE;
+            long time = Math.min(sampleTime, Math.min(screenTime, tickTime));
+            if (time == NONE) {
+                break;
+            }
+            now = Math.max(now, time);
+
+            if (time == sampleTime) {
+                position = nextSample++;
+                Transport transport = trace.getTransport(position);
+                if (transport != loop.getTransport()) {
+                    loop.onNetworkChanged(transport);
+                }
+            } else if (time == screenTime) {
+                screenOn = !screenOn;
+                if (screenOn) {
+                    period++;
+                }
+                powerModeController.setScreenOn(screenOn);
+            } else {
+                nextTick = NONE;
+                loop.onTick();
+            }
+        }
+        loop.stop();
+        return loop.getStats();
+    }
+}
@@ -0,0 +1,158 @@
+package com.netspeedindicator.core.replay;
+
+import com.netspeedindicator.core.SpeedCalculator;
+import com.netspeedindicator.core.Transport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A recorded or synthetic sequence of (time, rxBytes, txBytes, transport) counter samples.
+ * <p>
+ * Recorded traces are plain text, one sample per line: {@code timeMs,rxBytes,txBytes[,transport]}
+ * where timeMs may have up to six decimals and transport is a {@link Transport} name that
+ * defaults to OTHER. Blank lines and lines starting with {@code #} are ignored.
+ * Times are kept in nanoseconds and must not decrease.
+ */
+public class TrafficTrace {
+    private long[] timesNanos = new long[16];
+    private long[] rxBytes = new long[16];
+    private long[] txBytes = new long[16];
+    private Transport[] transports = new Transport[16];
+    private int size = 0;
+
+    public TrafficTrace add(long timeMs, long totalRxBytes, long totalTxBytes) {
+        return add(timeMs, totalRxBytes, totalTxBytes, Transport.OTHER);
+    }
+
+    public TrafficTrace add(long timeMs, long totalRxBytes, long totalTxBytes, Transport transport) {
+        return addNanos(timeMs * SpeedCalculator.NANOS_PER_MILLI, totalRxBytes, totalTxBytes, transport);
+    }
+
+    public TrafficTrace addNanos(long timeNanos, long totalRxBytes, long totalTxBytes, Transport transport) {
+        if (size > 0 && timeNanos < timesNanos[size - 1]) {
+            throw new IllegalArgumentException("Trace time must not decrease");
+        }
+        if (size == timesNanos.length) {
+            int capacity = size * 2;
+            timesNanos = Arrays.copyOf(timesNanos, capacity);
+            rxBytes = Arrays.copyOf(rxBytes, capacity);
+            txBytes = Arrays.copyOf(txBytes, capacity);
+            transports = Arrays.copyOf(transports, capacity);
+        }
+        timesNanos[size] = timeNanos;
+        rxBytes[size] = totalRxBytes;
+        txBytes[size] = totalTxBytes;
+        transports[size] = transport;
+        size++;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTimeNanos(int index) {
+        return timesNanos[index];
+    }
+
+    public long getRxBytes(int index) {
+        return rxBytes[index];
+    }
+
+    public long getTxBytes(int index) {
+        return txBytes[index];
+    }
+
+    public Transport getTransport(int index) {
+        return transports[index];
+    }
+
+    public static TrafficTrace read(Reader reader) throws IOException {
+        TrafficTrace trace = new TrafficTrace();
+        BufferedReader in = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (fields.length != 3 && fields.length != 4) {
+                throw new IOException("Line " + lineNumber + ": expected timeMs,rxBytes,txBytes[,transport]");
+            }
+            try {
+                Transport transport = fields.length == 4
+                        ? Transport.valueOf(fields[3].trim().toUpperCase(Locale.ROOT))
+                        : Transport.OTHER;
+                long timeNanos = new BigDecimal(fields[0].trim()).movePointRight(6).longValueExact();
+                trace.addNanos(timeNanos, Long.parseLong(fields[1].trim()), Long.parseLong(fields[2].trim()),
+                        transport);
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Generates a deterministic trace alternating idle periods and download/upload bursts,
+     * with occasional Wi-Fi/cellular handovers and offline periods. Handovers also make the
+     * cumulative counters jump, as they do on device when interfaces come and go.
+     *
+     * @param durationMs       length of the trace
+     * @param samplesPerSecond sampling rate, e.g. 1 for the real cadence or 10000 for stress runs
+     * @param seed             random seed, the same seed always yields the same trace
+     */
+    public static TrafficTrace synthetic(long durationMs, int samplesPerSecond, long seed) {
+        if (samplesPerSecond <= 0) {
+            throw new IllegalArgumentException("samplesPerSecond must be positive");
+        }
+        Random random = new Random(seed);
+        TrafficTrace trace = new TrafficTrace();
+        long count = durationMs * samplesPerSecond / 1000;
+        long rx = 0;
+        long tx = 0;
+        long downRate = 0; // bytes per second
+        long upRate = 0;
+        long phaseEnd = 0;
+        Transport transport = Transport.WIFI;
+        for (long i = 0; i <= count; i++) {
+            long time = i * SpeedCalculator.NANOS_PER_SECOND / samplesPerSecond;
+            if (time >= phaseEnd) {
+                phaseEnd = time + (1000 + random.nextInt(30000)) * SpeedCalculator.NANOS_PER_MILLI;
+                int network = random.nextInt(10);
+                if (network == 0) {
+                    transport = Transport.NONE;
+                } else if (network == 1 || transport == Transport.NONE) {
+                    transport = random.nextBoolean() ? Transport.WIFI : Transport.CELLULAR;
+                    rx += random.nextInt(64 * 1024 * 1024);
+                    tx += random.nextInt(8 * 1024 * 1024);
+                }
+                if (transport == Transport.NONE) {
+                    downRate = 0;
+                    upRate = 0;
+                } else if (random.nextInt(3) == 0) {
+                    downRate = 0;
+                    upRate = random.nextInt(512);
+                } else {
+                    downRate = random.nextInt(20 * 1024 * 1024);
+                    upRate = downRate / (2 + random.nextInt(20));
+                }
+            }
+            if (i > 0) {
+                rx += downRate / samplesPerSecond;
+                tx += upRate / samplesPerSecond;
+            }
+            trace.addNanos(time, rx, tx, transport);
+        }
+        return trace;
+    }
+}
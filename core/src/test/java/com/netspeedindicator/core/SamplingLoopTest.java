@@ -0,0 +1,97 @@
+package com.netspeedindicator.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SamplingLoopTest {
+    private static final long NOT_SCHEDULED = -1;
+
+    private long rxBytes;
+    private long timeNanos;
+    private long scheduledDelay = NOT_SCHEDULED;
+    private final List<Long> speeds = new ArrayList<>();
+    private SamplingLoop loop;
+
+    private final SpeedListener listener = new SpeedListener() {
+        @Override
+        public void onNetworkSpeedUpdate(long downloadSpeed, long uploadSpeed, long totalSpeed,
+                                         Transport transport) {
+            speeds.add(downloadSpeed);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        loop = new SamplingLoop(new TrafficSource() {
+            @Override
+            public long getTotalRxBytes() {
+                return rxBytes;
+            }
+
+            @Override
+            public long getTotalTxBytes() {
+                return 0;
+            }
+        }, new Clock() {
+            @Override
+            public long currentTimeNanos() {
+                return timeNanos;
+            }
+        }, new TickScheduler() {
+            @Override
+            public void schedule(long delayNanos) {
+                scheduledDelay = delayNanos;
+            }
+
+            @Override
+            public void cancel() {
+                scheduledDelay = NOT_SCHEDULED;
+            }
+        }, new SamplingLoop.CpuTimer() {
+            @Override
+            public long threadCpuTimeNanos() {
+                return 0;
+            }
+        });
+    }
+
+    @Test
+    public void startSamplesSynchronously() {
+        rxBytes = 512;
+        timeNanos = 500 * SpeedCalculator.NANOS_PER_MILLI;
+
+        loop.start(listener, Transport.WIFI);
+
+        // Covers the time since construction
+        assertEquals(1, speeds.size());
+        assertEquals(1024, speeds.get(0).longValue());
+        assertEquals(SpeedCalculator.NANOS_PER_SECOND, scheduledDelay);
+    }
+
+    @Test
+    public void startOfflineDoesNotSchedule() {
+        loop.start(listener, Transport.NONE);
+
+        assertEquals(1, speeds.size());
+        assertEquals(0, speeds.get(0).longValue());
+        assertEquals(NOT_SCHEDULED, scheduledDelay);
+    }
+
+    @Test
+    public void screenOffCancelsAndScreenOnSamplesRightAway() {
+        loop.start(listener, Transport.WIFI);
+
+        loop.setPowerMode(PowerMode.SCREEN_OFF);
+        assertEquals(NOT_SCHEDULED, scheduledDelay);
+        loop.onTick();
+        assertEquals(1, speeds.size());
+
+        loop.setPowerMode(PowerMode.ACTIVE);
+        assertEquals(0, scheduledDelay);
+    }
+}
@@ -0,0 +1,59 @@
+package com.netspeedindicator.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SpeedCalculatorTest {
+    private static final long MS = SpeedCalculator.NANOS_PER_MILLI;
+
+    @Test
+    public void speedIsBytesPerSecond() {
+        SpeedCalculator calculator = new SpeedCalculator();
+        calculator.reset(0, 0, 0);
+        calculator.update(3072, 1024, 2000 * MS);
+
+        assertEquals(1536, calculator.getDownloadSpeed());
+        assertEquals(512, calculator.getUploadSpeed());
+        assertEquals(2048, calculator.getTotalSpeed());
+    }
+
+    @Test
+    public void subMillisecondIntervals() {
+        SpeedCalculator calculator = new SpeedCalculator();
+        calculator.reset(0, 0, 0);
+        calculator.update(1600, 0, 100000);
+
+        assertEquals(16000000, calculator.getDownloadSpeed());
+    }
+
+    @Test
+    public void backwardsClockReportsZero() {
+        SpeedCalculator calculator = new SpeedCalculator();
+        calculator.reset(0, 0, 10000 * MS);
+        calculator.update(100000, 0, 9000 * MS);
+
+        assertEquals(0, calculator.getDownloadSpeed());
+    }
+
+    @Test
+    public void unsupportedCountersKeepTheLastValue() {
+        SpeedCalculator calculator = new SpeedCalculator();
+        calculator.reset(1000, 1000, 0);
+        calculator.update(SpeedCalculator.UNSUPPORTED, SpeedCalculator.UNSUPPORTED, 1000 * MS);
+
+        assertEquals(0, calculator.getTotalSpeed());
+
+        calculator.update(2024, 1000, 2000 * MS);
+        assertEquals(1024, calculator.getDownloadSpeed());
+    }
+
+    @Test
+    public void largeDeltasDoNotOverflow() {
+        SpeedCalculator calculator = new SpeedCalculator();
+        calculator.reset(0, 0, 0);
+        calculator.update(100L * 1024 * 1024 * 1024, 0, 3600 * 1000 * MS);
+
+        assertEquals(29826161, calculator.getDownloadSpeed());
+    }
+}
@@ -0,0 +1,89 @@
+package com.netspeedindicator.core.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.netspeedindicator.core.PowerModeController;
+import com.netspeedindicator.core.SamplerStats;
+import com.netspeedindicator.core.SpeedCalculator;
+import com.netspeedindicator.core.SpeedFilter;
+import com.netspeedindicator.core.SpeedFormatter;
+import com.netspeedindicator.core.SpeedListener;
+import com.netspeedindicator.core.SpeedPresenter;
+import com.netspeedindicator.core.Transport;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PowerModeReplayTest {
+    private static final long SECOND = SpeedCalculator.NANOS_PER_SECOND;
+
+    @Test
+    public void screenOffStopsSamplingAndScreenOnCatchesUp() {
+        // Ten minutes of 2 KB/s with the screen off from 120 s to 420 s
+        TrafficTrace trace = new TrafficTrace();
+        for (int i = 0; i <= 600; i++) {
+            trace.add(i * 1000L, i * 2048L, 0, Transport.WIFI);
+        }
+        ReplayEngine engine = new ReplayEngine(trace).addScreenOff(120000, 420000);
+        TimedListener listener = new TimedListener(engine);
+
+        SamplerStats stats = engine.replay(listener, new PowerModeController());
+
+        // 0..119 s, then 420..600 s
+        assertEquals(301, stats.getWakeups());
+        assertEquals(119 * SECOND, listener.times.get(119).longValue());
+        // The catch-up sample is taken the moment the screen comes back on and covers
+        // the whole screen off period
+        assertEquals(420 * SECOND, listener.times.get(120).longValue());
+        assertEquals(2048, listener.speeds.get(120).longValue());
+    }
+
+    @Test
+    public void powerModesReduceWakeups() {
+        TrafficTrace trace = TrafficTrace.synthetic(60 * 60 * 1000, 1, 42);
+
+        SamplerStats always = new ReplayEngine(trace).replay(presenter(new RecordingOverlayView()));
+
+        ReplayEngine engine = new ReplayEngine(trace)
+                .addScreenOff(10 * 60 * 1000, 40 * 60 * 1000)
+                .addScreenOff(45 * 60 * 1000, 55 * 60 * 1000);
+        RecordingOverlayView view = new RecordingOverlayView();
+        PowerModeController powerModeController = new PowerModeController();
+        SpeedPresenter presenter = presenter(view);
+        presenter.setPowerModeController(powerModeController);
+        SamplerStats powered = engine.replay(presenter, powerModeController);
+
+        // 40 of 60 minutes with the screen off plus the hidden cadence cut wakeups by more
+        // than two thirds
+        assertTrue(always.getWakeups() + " -> " + powered.getWakeups(),
+                powered.getWakeups() * 3 < always.getWakeups());
+    }
+
+    private static SpeedPresenter presenter(RecordingOverlayView view) {
+        SpeedPresenter presenter = new SpeedPresenter(view, "D", "U",
+                Collections.<Transport, String>emptyMap());
+        presenter.configure(SpeedFormatter.FORMAT_TOTAL, true, SpeedFilter.DEFAULT_THRESHOLD, false);
+        return presenter;
+    }
+
+    private static class TimedListener implements SpeedListener {
+        final List<Long> times = new ArrayList<>();
+        final List<Long> speeds = new ArrayList<>();
+        private final ReplayEngine engine;
+
+        TimedListener(ReplayEngine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        public void onNetworkSpeedUpdate(long downloadSpeed, long uploadSpeed, long totalSpeed,
+                                         Transport transport) {
+            times.add(engine.currentTimeNanos());
+            speeds.add(downloadSpeed);
+        }
+    }
+}
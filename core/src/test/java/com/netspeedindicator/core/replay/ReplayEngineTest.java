@@ -0,0 +1,182 @@
+package com.netspeedindicator.core.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.netspeedindicator.core.SamplerStats;
+import com.netspeedindicator.core.SpeedCalculator;
+import com.netspeedindicator.core.SpeedFormatter;
+import com.netspeedindicator.core.SpeedListener;
+import com.netspeedindicator.core.SpeedPresenter;
+import com.netspeedindicator.core.Transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class ReplayEngineTest {
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() {
+        // formatSpeed uses the default locale's decimal separator
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void lowSpeedHideHidesAndShowsTheOverlay() throws IOException {
+        TrafficTrace trace = trace(
+                "0,0,0",
+                "1000,2048,0",
+                "2000,2560,0",
+                "3000,6656,0");
+
+        assertEquals(Arrays.asList(
+                "visibility:GONE",
+                "visibility:VISIBLE",
+                "text:2.0 KB/s",
+                "visibility:GONE",
+                "visibility:VISIBLE",
+                "text:4.0 KB/s"),
+                replay(trace, SpeedFormatter.FORMAT_TOTAL, true, false));
+    }
+
+    @Test
+    public void speedFormats() throws IOException {
+        TrafficTrace trace = trace(
+                "0,0,0",
+                "1000,3072,1024");
+
+        assertEquals(Arrays.asList(
+                "text:0 B/s",
+                "text:4.0 KB/s"),
+                replay(trace, SpeedFormatter.FORMAT_TOTAL, false, false));
+        assertEquals(Arrays.asList(
+                "text:D0 B/s U0 B/s",
+                "text:D3.0 KB/s U1.0 KB/s"),
+                replay(trace, SpeedFormatter.FORMAT_UP_DOWN_HORIZONTAL, false, false));
+        assertEquals(Arrays.asList(
+                "text:D0 B/s\nU0 B/s",
+                "text:D3.0 KB/s\nU1.0 KB/s"),
+                replay(trace, SpeedFormatter.FORMAT_UP_DOWN_VERTICAL, false, false));
+    }
+
+    @Test
+    public void transportChangeRebaselines() throws IOException {
+        // Counters jump by ~500 MB at the handover, which must not show up as speed
+        TrafficTrace trace = trace(
+                "0,0,0,wifi",
+                "1000,1024,0,wifi",
+                "2000,500000000,0,cellular",
+                "3000,500002048,0,cellular",
+                "4000,500004096,0,cellular");
+        RecordingOverlayView view = new RecordingOverlayView();
+        SamplerStats stats = new ReplayEngine(trace).replay(presenter(view, SpeedFormatter.FORMAT_TOTAL, false, true));
+
+        assertEquals(Arrays.asList(
+                "text:Wi-Fi 0 B/s",
+                "text:Wi-Fi 1.0 KB/s",
+                "text:Mobile 2.0 KB/s",
+                "text:Mobile 2.0 KB/s"),
+                view.getEvents());
+        // No sample at the handover itself, the next one follows a full interval later
+        assertEquals(4, stats.getWakeups());
+    }
+
+    @Test
+    public void offlinePeriodReportsZeroOnceAndStopsSampling() throws IOException {
+        TrafficTrace trace = trace(
+                "0,0,0,wifi",
+                "1000,1024,0,wifi",
+                "2000,1024,0,none",
+                "3000,1024,0,none",
+                "4000,1024,0,none",
+                "5000,1024,0,wifi",
+                "6000,3072,0,wifi");
+        RecordingOverlayView view = new RecordingOverlayView();
+        SamplerStats stats = new ReplayEngine(trace).replay(presenter(view, SpeedFormatter.FORMAT_TOTAL, false, false));
+
+        assertEquals(Arrays.asList(
+                "text:0 B/s",
+                "text:1.0 KB/s",
+                "text:0 B/s",
+                "text:2.0 KB/s"),
+                view.getEvents());
+        // Samples at 0, 1000 and 6000 only
+        assertEquals(3, stats.getWakeups());
+    }
+
+    @Test
+    public void replayIsDeterministic() {
+        TrafficTrace trace = TrafficTrace.synthetic(10 * 60 * 1000, 10, 7);
+
+        List<String> first = replay(trace, SpeedFormatter.FORMAT_UP_DOWN_HORIZONTAL, true, true);
+        List<String> second = replay(trace, SpeedFormatter.FORMAT_UP_DOWN_HORIZONTAL, true, true);
+
+        assertFalse(first.isEmpty());
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void tenThousandSamplesPerSecondKeepTheRealSpeed() {
+        // 16,000,000 B/s sampled every 100 us
+        TrafficTrace trace = new TrafficTrace();
+        for (int i = 0; i <= 10000; i++) {
+            trace.addNanos(i * 100000L, i * 1600L, 0, Transport.WIFI);
+        }
+        final List<Long> speeds = new ArrayList<>();
+        SamplerStats stats = new ReplayEngine(trace).replay(new SpeedListener() {
+            @Override
+            public void onNetworkSpeedUpdate(long downloadSpeed, long uploadSpeed, long totalSpeed,
+                                             Transport transport) {
+                speeds.add(downloadSpeed);
+            }
+        }, SpeedCalculator.NANOS_PER_SECOND / 10000);
+
+        assertEquals(10001, stats.getWakeups());
+        // The first sample is taken on the baseline itself
+        for (int i = 1; i < speeds.size(); i++) {
+            assertEquals(16000000L, (long) speeds.get(i));
+        }
+    }
+
+    private static List<String> replay(TrafficTrace trace, int speedFormat, boolean lowSpeedHide,
+                                       boolean showTransport) {
+        RecordingOverlayView view = new RecordingOverlayView();
+        new ReplayEngine(trace).replay(presenter(view, speedFormat, lowSpeedHide, showTransport));
+        return view.getEvents();
+    }
+
+    private static SpeedPresenter presenter(RecordingOverlayView view, int speedFormat, boolean lowSpeedHide,
+                                            boolean showTransport) {
+        Map<Transport, String> transportLabels = new EnumMap<>(Transport.class);
+        transportLabels.put(Transport.WIFI, "Wi-Fi");
+        transportLabels.put(Transport.CELLULAR, "Mobile");
+        SpeedPresenter presenter = new SpeedPresenter(view, "D", "U", transportLabels);
+        presenter.configure(speedFormat, lowSpeedHide, 1024, showTransport);
+        return presenter;
+    }
+
+    private static TrafficTrace trace(String... lines) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return TrafficTrace.read(new StringReader(text.toString()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.netspeedindicator.core.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.netspeedindicator.core.Transport;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+public class TrafficTraceTest {
+    @Test
+    public void readsSamples() throws IOException {
+        TrafficTrace trace = TrafficTrace.read(new StringReader(
+                "# timeMs,rxBytes,txBytes,transport\n"
+                        + "\n"
+                        + "0,10,20\n"
+                        + " 1000 , 30 , 40 , wifi \n"
+                        + "1000.25,50,60,CELLULAR\n"));
+
+        assertEquals(3, trace.size());
+        assertEquals(0, trace.getTimeNanos(0));
+        assertEquals(10, trace.getRxBytes(0));
+        assertEquals(20, trace.getTxBytes(0));
+        assertEquals(Transport.OTHER, trace.getTransport(0));
+        assertEquals(1000000000L, trace.getTimeNanos(1));
+        assertEquals(Transport.WIFI, trace.getTransport(1));
+        assertEquals(1000250000L, trace.getTimeNanos(2));
+        assertEquals(Transport.CELLULAR, trace.getTransport(2));
+    }
+
+    @Test
+    public void rejectsWrongFieldCount() {
+        assertReadFails("0,1,2\n1000,1\n", "Line 2");
+    }
+
+    @Test
+    public void rejectsBadNumbers() {
+        assertReadFails("0,x,2\n", "Line 1");
+    }
+
+    @Test
+    public void rejectsUnknownTransport() {
+        assertReadFails("0,1,2,bluetooth\n", "Line 1");
+    }
+
+    @Test
+    public void rejectsDecreasingTime() {
+        assertReadFails("1000,0,0\n500,0,0\n", "Line 2");
+    }
+
+    @Test
+    public void rejectsSubNanosecondTime() {
+        assertReadFails("0.0000001,0,0\n", "Line 1");
+    }
+
+    @Test
+    public void syntheticTraceIsDeterministic() {
+        TrafficTrace first = TrafficTrace.synthetic(60000, 10, 7);
+        TrafficTrace second = TrafficTrace.synthetic(60000, 10, 7);
+
+        assertEquals(601, first.size());
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.getTimeNanos(i), second.getTimeNanos(i));
+            assertEquals(first.getRxBytes(i), second.getRxBytes(i));
+            assertEquals(first.getTxBytes(i), second.getTxBytes(i));
+            assertEquals(first.getTransport(i), second.getTransport(i));
+        }
+    }
+
+    private static void assertReadFails(String text, String message) {
+        try {
+            TrafficTrace.read(new StringReader(text));
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+        }
+    }
+}